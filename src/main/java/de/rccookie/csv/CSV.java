@@ -1,5 +1,6 @@
 package de.rccookie.csv;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -11,14 +12,24 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
 
 import de.rccookie.util.Arguments;
-import de.rccookie.util.IterableIterator;
 import de.rccookie.util.ListStream;
 import de.rccookie.util.RowMajorTable;
 import de.rccookie.util.StepIterator;
@@ -163,11 +174,11 @@ public final class CSV {
     }
 
     public static void write(Table<?,?> table, Appendable out, char delimiter, long options) {
-        write(table, out, delimiter, '"', false, options);
+        write(table, out, delimiter, '"', false, true, options);
     }
 
     @SuppressWarnings("SameParameterValue")
-    static void write(Table<?, ?> table, Appendable out, char delimiter, int quotes, boolean backslashEscapes, long options) {
+    static void write(Table<?, ?> table, Appendable out, char delimiter, int quotes, boolean backslashEscapes, boolean header, long options) {
         try {
             boolean alwaysEnquote = (options & ALWAYS_ENQUOTE) != 0;
             boolean onlyLineFeed = (options & ONLY_LINE_FEED) != 0;
@@ -175,7 +186,7 @@ public final class CSV {
             int width = table.columnCount();
             boolean rowsAreLabeled = table.rowsAreLabeled();
 
-            if(table.columnsAreLabeled()) {
+            if(header && table.columnsAreLabeled()) {
                 if(rowsAreLabeled && width != 0)
                     out.append(delimiter);
                 writeRow(table.columnLabels(), width, out, delimiter, quotes, backslashEscapes, alwaysEnquote, onlyLineFeed);
@@ -193,6 +204,125 @@ public final class CSV {
         }
     }
 
+    public static void append(Table<?,?> table, Path file) {
+        append(table, file, 0);
+    }
+
+    public static void append(Table<?,?> table, Path file, long options) {
+        append(table, file, ',', options);
+    }
+
+    public static void append(Table<?,?> table, Path file, char delimiter) {
+        append(table, file, delimiter, 0);
+    }
+
+    /**
+     * Appends the rows of the given table to the specified file, without rewriting the
+     * existing contents of the file. If the file does not exist or is empty, the table
+     * will be written including its header. Otherwise, if the table has column labels,
+     * the first record of the file has to match them. If the file does not end with a
+     * line break, one will be inserted before the new rows.
+     *
+     * @param table The table whose rows to append
+     * @param file The file to append to
+     * @param delimiter The delimiter used in the file
+     * @param options Options for writing, see {@link #ALWAYS_ENQUOTE} and {@link #ONLY_LINE_FEED}
+     * @throws IllegalArgumentException If the file's header does not match the table's column labels
+     */
+    public static void append(Table<?,?> table, Path file, char delimiter, long options) {
+        append(table, file, delimiter, false, options);
+    }
+
+    static void append(Table<?,?> table, Path file, char delimiter, boolean tsv, long options) {
+        try {
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            boolean lineBreak = false;
+            if(size != 0) {
+                if(table.columnsAreLabeled()) {
+                    List<String> header;
+                    try(Reader in = new InputStreamReader(Files.newInputStream(file))) {
+                        header = tsv ? new TSVReader(in, delimiter, '\\').next() : parse0(in, delimiter, '"', -2).next();
+                    }
+                    List<String> labels = new ArrayList<>();
+                    if(table.rowsAreLabeled() && table.columnCount() != 0)
+                        labels.add("");
+                    for(Object label : table.columnLabels())
+                        labels.add(label != null ? label+"" : "");
+                    if(!header.equals(labels))
+                        throw new IllegalArgumentException("Column labels "+labels+" do not match the header "+header+" of "+file);
+                }
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer last = ByteBuffer.allocate(1);
+                    channel.read(last, size - 1);
+                    lineBreak = last.get(0) != '\n' && last.get(0) != '\r';
+                }
+            }
+
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel)))) {
+                if(lineBreak)
+                    out.append((options & ONLY_LINE_FEED) != 0 ? "\n" : "\r\n");
+                if(tsv)
+                    TSVWriter.write(table, out, delimiter, size == 0, options);
+                else write(table, out, delimiter, '"', false, size == 0, options);
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static <K> void writePartitioned(Table<?,?> table, Function<? super List<?>, ? extends K> partition, Function<? super K, ? extends Path> files) {
+        writePartitioned(table, partition, files, 0);
+    }
+
+    /**
+     * Writes the rows of the given table into multiple files, determined by the given
+     * partition function. Existing files are replaced, and each file gets the table's
+     * header. If the table's rows are labeled, the row label is the first value of the
+     * rows passed to the partition function. See {@link PartitionedWriter} for more
+     * control.
+     *
+     * @param table The table to write
+     * @param partition Determines the partition of each row
+     * @param files Maps each partition to the file its rows are written to
+     * @param options Options for writing, see {@link #ALWAYS_ENQUOTE} and {@link #ONLY_LINE_FEED}
+     */
+    public static <K> void writePartitioned(Table<?,?> table, Function<? super List<?>, ? extends K> partition, Function<? super K, ? extends Path> files, long options) {
+        writePartitioned(table, partition, files, CSVFormat.CSV, options);
+    }
+
+    static <K> void writePartitioned(Table<?,?> table, Function<? super List<?>, ? extends K> partition, Function<? super K, ? extends Path> files, CSVFormat format, long options) {
+        boolean rowsAreLabeled = table.rowsAreLabeled();
+        List<Object> header = null;
+        if(table.columnsAreLabeled()) {
+            header = new ArrayList<>();
+            if(rowsAreLabeled && table.columnCount() != 0)
+                header.add("");
+            for(Object label : table.columnLabels())
+                header.add(label);
+        }
+        Iterator<? extends Table.Vector<?,?>> rows = table.rows().iterator();
+        try(PartitionedWriter<K> writer = new PartitionedWriter<>(files, header, format, options, PartitionedWriter.DEFAULT_MAX_OPEN_FILES)) {
+            writer.writeAll(new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return rows.hasNext();
+                }
+
+                @Override
+                public List<?> next() {
+                    Table.Vector<?,?> row = rows.next();
+                    List<Object> values = new ArrayList<>();
+                    if(rowsAreLabeled)
+                        values.add(row.label());
+                    for(Object value : row)
+                        values.add(value);
+                    return values;
+                }
+            }, partition);
+        }
+    }
+
     private static void writeRow(Iterable<?> row, int width, Appendable out, char delimiter, int quotes, boolean backslashEscapes, boolean alwaysEnquote, boolean onlyLineFeed) throws IOException {
         if(width == 0) {
             if(!onlyLineFeed)
@@ -212,13 +342,13 @@ public final class CSV {
         }
     }
 
-    private static void writeValue(Object value, Appendable out, char delimiter, int quotes, boolean backslashEscapes, boolean alwaysEnquote) throws IOException {
+    static void writeValue(Object value, Appendable out, char delimiter, int quotes, boolean backslashEscapes, boolean alwaysEnquote) throws IOException {
         if(value == null) {
             if(alwaysEnquote)
                 out.append(delimiter).append(delimiter);
             return;
         }
-        String str = value+"";
+        String str = String.valueOf(value);
         if(backslashEscapes) {
             if(quotes >= 0 && (alwaysEnquote || str.indexOf(quotes) != -1 || str.indexOf(delimiter) != -1)) {
                 out.append((char) quotes);
@@ -277,6 +407,60 @@ public final class CSV {
     }
 
 
+    public static void transcode(Path in, CSVFormat inFormat, Charset inCharset, Path out, CSVFormat outFormat, Charset outCharset) {
+        transcode(in, inFormat, inCharset, out, outFormat, outCharset, 0);
+    }
+
+    /**
+     * Transcodes the given file into another file, see {@link #transcode(Reader, CSVFormat, Writer, CSVFormat, long)}.
+     *
+     * @param in The file to read from
+     * @param inFormat The format of the input file
+     * @param inCharset The charset of the input file
+     * @param out The file to write to. Existing contents will be replaced
+     * @param outFormat The format to write in
+     * @param outCharset The charset to write in
+     * @param options Options for writing, see {@link #ALWAYS_ENQUOTE} and {@link #ONLY_LINE_FEED}
+     */
+    public static void transcode(Path in, CSVFormat inFormat, Charset inCharset, Path out, CSVFormat outFormat, Charset outCharset, long options) {
+        Arguments.checkNull(inCharset, "inCharset");
+        Arguments.checkNull(outCharset, "outCharset");
+        try(Reader reader = DecodingReader.of(Files.newInputStream(in), inCharset);
+            Writer writer = new OutputStreamWriter(Files.newOutputStream(out), outCharset)) {
+            transcode(reader, inFormat, writer, outFormat, options);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static void transcode(Reader in, CSVFormat inFormat, Writer out, CSVFormat outFormat) {
+        transcode(in, inFormat, out, outFormat, 0);
+    }
+
+    /**
+     * Reads records in one format and writes them in another, without holding more than
+     * a single field in memory. Fields which need no escaping in the output format are
+     * copied from the input as they are. The output is the same as when parsing the
+     * input into a table and writing that table, and ends with a line break. The input
+     * will be closed, the output only flushed.
+     *
+     * @param in The input to read from
+     * @param inFormat The format of the input
+     * @param out The output to write to
+     * @param outFormat The format to write in. Only <code>'\'</code> is supported as backslash
+     * @param options Options for writing, see {@link #ALWAYS_ENQUOTE} and {@link #ONLY_LINE_FEED}
+     */
+    public static void transcode(Reader in, CSVFormat inFormat, Writer out, CSVFormat outFormat, long options) {
+        new Transcoder(
+                Arguments.checkNull(in, "in"),
+                Arguments.checkNull(inFormat, "inFormat"),
+                Arguments.checkNull(out, "out"),
+                Arguments.checkNull(outFormat, "outFormat"),
+                options
+        ).run();
+    }
+
+
 
     public static <L> Table<L, String> load(String file, Collection<? extends L> labels) {
         try {
@@ -310,6 +494,18 @@ public final class CSV {
         return parse(new InputStreamReader(csv), ',', labels);
     }
 
+    public static <L> Table<L, String> parse(Path file, Charset charset, Collection<? extends L> labels) {
+        try {
+            return parse(Files.newInputStream(file), charset, labels);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static <L> Table<L, String> parse(InputStream csv, Charset charset, Collection<? extends L> labels) {
+        return parse(DecodingReader.of(csv, charset), ',', labels);
+    }
+
     public static <L> Table<L, String> parse(Reader in, Collection<? extends L> labels) {
         return parse(in, ',', labels);
     }
@@ -347,6 +543,18 @@ public final class CSV {
         return parse(new InputStreamReader(csv), delimiter, labels);
     }
 
+    public static <L> Table<L, String> parse(Path file, char delimiter, Charset charset, Collection<? extends L> labels) {
+        try {
+            return parse(Files.newInputStream(file), delimiter, charset, labels);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static <L> Table<L, String> parse(InputStream csv, char delimiter, Charset charset, Collection<? extends L> labels) {
+        return parse(DecodingReader.of(csv, charset), delimiter, labels);
+    }
+
     public static <L> Table<L, String> parse(Reader in, char delimiter, Collection<? extends L> labels) {
         return toTable(parseRaw(in, delimiter), labels);
     }
@@ -391,6 +599,18 @@ public final class CSV {
         return parse(new InputStreamReader(csv), ',', header);
     }
 
+    public static Table<String, String> parse(Path file, Charset charset, boolean header) {
+        try {
+            return parse(Files.newInputStream(file), charset, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static Table<String, String> parse(InputStream csv, Charset charset, boolean header) {
+        return parse(DecodingReader.of(csv, charset), ',', header);
+    }
+
     public static Table<String, String> parse(Reader in, boolean header) {
         return parse(in, ',', header);
     }
@@ -428,6 +648,18 @@ public final class CSV {
         return parse(new InputStreamReader(csv), delimiter, header);
     }
 
+    public static Table<String, String> parse(Path file, char delimiter, Charset charset, boolean header) {
+        try {
+            return parse(Files.newInputStream(file), delimiter, charset, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static Table<String, String> parse(InputStream csv, char delimiter, Charset charset, boolean header) {
+        return parse(DecodingReader.of(csv, charset), delimiter, header);
+    }
+
     public static Table<String, String> parse(Reader in, char delimiter, boolean header) {
         return toTable(parseRaw(in, delimiter), header);
     }
@@ -443,6 +675,30 @@ public final class CSV {
         return table;
     }
 
+    public static OffHeapTable loadOffHeap(Path file, boolean header) {
+        return loadOffHeap(file, ',', header);
+    }
+
+    public static OffHeapTable loadOffHeap(Path file, char delimiter, boolean header) {
+        try(Reader in = new InputStreamReader(Files.newInputStream(file))) {
+            return parseOffHeap(in, delimiter, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static OffHeapTable loadOffHeap(Path file, char delimiter, Charset charset, boolean header) {
+        try(Reader in = DecodingReader.of(Files.newInputStream(file), charset)) {
+            return parseOffHeap(in, delimiter, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static OffHeapTable parseOffHeap(Reader in, char delimiter, boolean header) {
+        return OffHeapTable.of(parse0(Arguments.checkNull(in, "in"), delimiter, '"', -2), header);
+    }
+
     public static ListStream<List<String>> parseRaw(@NotNull Reader in) {
         return parseRaw(in, ',');
     }
@@ -460,79 +716,195 @@ public final class CSV {
         ));
     }
 
-    private static IterableIterator<List<String>> parse0(Reader in, char delimiter, int quotes, int backslash) {
-        if(quotes == delimiter)
-            throw new IllegalArgumentException("Quotes cannot be the same character as the delimiter");
-        if(backslash == delimiter)
-            throw new IllegalArgumentException("Backslash cannot be the same character as the delimiter");
-        if(quotes != -2 && quotes == backslash)
-            throw new IllegalArgumentException("Quotes cannot be the same character as backslash");
-        return new StepIterator<>() {
-            int c;
-            {
-                try {
-                    c = in.read();
-                } catch(IOException e) {
-                    throw Utils.rethrow(e);
-                }
-            }
-            final StringBuilder str = new StringBuilder();
+    public static ListStream<List<String>> parseRange(@NotNull Reader in, long skip, long limit) {
+        return parseRange(in, ',', skip, limit);
+    }
+
+    public static ListStream<List<String>> parseRange(@NotNull Reader in, char delimiter, long skip, long limit) {
+        return parseRange(in, new CSVFormat(delimiter, '"', null), skip, limit);
+    }
+
+    /**
+     * Parses at most <code>limit</code> records after skipping the first <code>skip</code>
+     * records. Skipped records are only scanned for their boundaries and not parsed.
+     *
+     * @param in The input to parse
+     * @param format The format of the input
+     * @param skip The number of records to skip
+     * @param limit The maximum number of records to parse
+     * @return The parsed records
+     */
+    public static ListStream<List<String>> parseRange(@NotNull Reader in, CSVFormat format, long skip, long limit) {
+        if(skip < 0)
+            throw new IllegalArgumentException("skip < 0");
+        if(limit < 0)
+            throw new IllegalArgumentException("limit < 0");
+        RecordIterator records = RecordIterator.of(Arguments.checkNull(in, "in"), Arguments.checkNull(format, "format"));
+        return ListStream.of(new StepIterator<>() {
+            boolean skipped = false;
+            long remaining = limit;
             @Override
             protected List<String> getNext() {
-                try {
-                    if(c == -1) {
-                        in.close();
-                        return null;
-                    }
-                    List<String> record = new ArrayList<>();
-                    while(c != -1) {
-                        str.setLength(0);
-                        if(c == quotes) {
-                            while((c = in.read()) != -1 && (c != quotes || (c = in.read()) == quotes)) {
-                                if(c == backslash) {
-                                    c = in.read();
-                                    switch(c) {
-                                        case 'r':
-                                            c = '\r';
-                                            break;
-                                        case 'n':
-                                            c = '\n';
-                                            break;
-                                        case 't':
-                                            c = '\t';
-                                            break;
-                                        default:
-                                            if(c != delimiter && c != quotes)
-                                                str.append(backslash);
-                                    }
-                                }
-                                str.append((char) c);
-                            }
-                        }
-                        while(c != -1 && c != delimiter && c != '\r' && c != '\n') {
-                            str.append((char) c);
-                            c = in.read();
-                        }
-                        if(c == '\r') {
-                            c = in.read();
-                            if(c == '\n')
-                                c = in.read();
-                            record.add(str.toString());
-                            return record;
-                        }
-                        else if(c == '\n') {
-                            c = in.read();
-                            record.add(str.toString());
-                            return record;
-                        }
-                        else c = in.read();
-                        record.add(str.toString());
-                    }
-                    return record;
-                } catch(IOException e) {
-                    throw Utils.rethrow(e);
+                if(!skipped) {
+                    skipped = true;
+                    for(long i=0; i<skip; i++)
+                        if(!records.skip())
+                            return null;
                 }
+                if(remaining == 0) {
+                    records.close();
+                    return null;
+                }
+                remaining--;
+                return records.read();
+            }
+        });
+    }
+
+
+    public static List<List<String>> sample(@NotNull Reader in, int k, long seed) {
+        return sample(in, ',', k, seed);
+    }
+
+    public static List<List<String>> sample(@NotNull Reader in, char delimiter, int k, long seed) {
+        return sample(in, new CSVFormat(delimiter, '"', null), k, seed);
+    }
+
+    public static List<List<String>> sample(Path file, CSVFormat format, Charset charset, int k, long seed) {
+        try(Reader in = DecodingReader.of(Files.newInputStream(file), charset)) {
+            return sample(in, format, k, seed);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    /**
+     * Selects a uniform random sample of <code>k</code> records from the input (or all
+     * records, if there are fewer). Only the records which get selected at some point are
+     * parsed, all others are skipped by scanning for their boundaries. The sampled records
+     * are not returned in input order.
+     *
+     * @param in The input to sample from
+     * @param format The format of the input
+     * @param k The number of records to sample
+     * @param seed The seed for the random selection
+     * @return The sampled records
+     */
+    public static List<List<String>> sample(@NotNull Reader in, CSVFormat format, int k, long seed) {
+        if(k < 0)
+            throw new IllegalArgumentException("k < 0");
+        RecordIterator records = RecordIterator.of(Arguments.checkNull(in, "in"), Arguments.checkNull(format, "format"));
+        List<List<String>> sample = new ArrayList<>(k);
+        if(k == 0) {
+            records.close();
+            return sample;
+        }
+        List<String> record;
+        while(sample.size() < k) {
+            if((record = records.read()) == null)
+                return sample;
+            sample.add(record);
+        }
+        // Reservoir sampling, Li's algorithm L: the number of records until the next one
+        // which replaces a sampled record is geometrically distributed
+        Random random = new Random(seed);
+        double w = Math.exp(Math.log(1 - random.nextDouble()) / k);
+        while(true) {
+            double skip = Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - w));
+            for(long i=0; i<skip; i++)
+                if(!records.skip())
+                    return sample;
+            if((record = records.read()) == null)
+                return sample;
+            sample.set(random.nextInt(k), record);
+            w *= Math.exp(Math.log(1 - random.nextDouble()) / k);
+        }
+    }
+
+    /**
+     * Samples about <code>k</code> records from the given file by jumping to random byte
+     * offsets and parsing the record following the next line break. Only the sampled
+     * records are read, so this is much faster than {@link #sample(Path, CSVFormat, Charset, int, long)}
+     * for large files. However, the sample is not uniform: a record is selected with a
+     * probability proportional to the length of the record before it, the first record
+     * is picked only for offset 0, and offsets within the same record yield the record
+     * only once, so fewer than <code>k</code> records may be returned. The records are
+     * returned in file order.
+     * <p>This requires a format without quotes, where every line break ends a record, and
+     * one of the charsets US-ASCII, ISO-8859-1 and UTF-8.</p>
+     *
+     * @param file The file to sample from
+     * @param format The format of the file
+     * @param charset The charset of the file
+     * @param k The number of offsets to sample
+     * @param seed The seed for the random offsets
+     * @return The sampled records
+     */
+    public static List<List<String>> sampleApproximate(Path file, CSVFormat format, Charset charset, int k, long seed) {
+        Arguments.checkNull(format, "format");
+        if(format.quotes() != null)
+            throw new IllegalArgumentException("Seeking to records requires a format without quotes");
+        if(!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.ISO_8859_1) && !charset.equals(StandardCharsets.US_ASCII))
+            throw new IllegalArgumentException("Seeking to records is not supported for charset "+charset);
+        if(k < 0)
+            throw new IllegalArgumentException("k < 0");
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<List<String>> sample = new ArrayList<>(k);
+            if(size == 0)
+                return sample;
+
+            Random random = new Random(seed);
+            long[] offsets = new long[k];
+            for(int i=0; i<k; i++)
+                offsets[i] = (long) (random.nextDouble() * size);
+            Arrays.sort(offsets);
+
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long last = -1;
+            for(long offset : offsets) {
+                long start = offset == 0 ? 0 : nextRecord(channel, offset - 1, size, buffer);
+                if(start >= size || start == last)
+                    continue;
+                last = start;
+                channel.position(start);
+                // The input is not at its end, so the reader (and with it the channel) won't be closed
+                List<String> record = RecordIterator.of(DecodingReader.of(Channels.newInputStream(channel), charset), format).read();
+                if(record != null)
+                    sample.add(record);
+            }
+            return sample;
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    private static long nextRecord(FileChannel channel, long from, long size, ByteBuffer buffer) throws IOException {
+        for(long pos = from; pos < size; ) {
+            buffer.clear();
+            int n = channel.read(buffer, pos);
+            if(n <= 0)
+                break;
+            for(int i=0; i<n; i++) {
+                byte b = buffer.get(i);
+                if(b == '\n')
+                    return pos + i + 1;
+                if(b != '\r')
+                    continue;
+                if(i + 1 < n)
+                    return buffer.get(i + 1) == '\n' ? pos + i + 2 : pos + i + 1;
+                buffer.clear().limit(1);
+                return channel.read(buffer, pos + i + 1) == 1 && buffer.get(0) == '\n' ? pos + i + 2 : pos + i + 1;
             }
-        };
+            pos += n;
+        }
+        return size;
+    }
+
+    private static RecordIterator parse0(Reader in, char delimiter, int quotes, int backslash) {
+        if(quotes == -2)
+            return new TSVReader(in, delimiter, backslash);
+        return new CSVReader(in, delimiter, quotes, backslash);
     }
 }
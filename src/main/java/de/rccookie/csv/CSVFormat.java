@@ -0,0 +1,75 @@
+package de.rccookie.csv;
+
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Describes a dialect of delimiter separated values by its delimiter, quote character
+ * and escape character, as accepted by {@link CSV#parseFormat(java.io.Reader, char, Character, Character)}.
+ */
+public final class CSVFormat {
+
+    /**
+     * Comma separated values, with double quotes and without backslash escapes.
+     */
+    public static final CSVFormat CSV = new CSVFormat(',', '"', null);
+
+    /**
+     * Tab separated values, without quotes and with backslash escapes.
+     */
+    public static final CSVFormat TSV = new CSVFormat('\t', null, '\\');
+
+
+    private final char delimiter;
+    private final Character quotes;
+    private final Character backslash;
+
+    public CSVFormat(char delimiter, @Nullable Character quotes, @Nullable Character backslash) {
+        if(quotes != null && quotes == delimiter)
+            throw new IllegalArgumentException("Quotes cannot be the same character as the delimiter");
+        if(backslash != null && backslash == delimiter)
+            throw new IllegalArgumentException("Backslash cannot be the same character as the delimiter");
+        if(quotes != null && quotes.equals(backslash))
+            throw new IllegalArgumentException("Quotes cannot be the same character as backslash");
+        this.delimiter = delimiter;
+        this.quotes = quotes;
+        this.backslash = backslash;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    @Nullable
+    public Character quotes() {
+        return quotes;
+    }
+
+    @Nullable
+    public Character backslash() {
+        return backslash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof CSVFormat)) return false;
+        CSVFormat that = (CSVFormat) o;
+        return delimiter == that.delimiter && Objects.equals(quotes, that.quotes) && Objects.equals(backslash, that.backslash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(delimiter, quotes, backslash);
+    }
+
+    @Override
+    public String toString() {
+        return "CSVFormat{" +
+               "delimiter=" + delimiter +
+               ", quotes=" + quotes +
+               ", backslash=" + backslash +
+               '}';
+    }
+}
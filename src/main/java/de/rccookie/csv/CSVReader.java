@@ -0,0 +1,138 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.rccookie.util.Utils;
+
+/**
+ * Record parser for formats with quotes, reading the input char by char. Escape sequences
+ * are only processed within quotes.
+ */
+final class CSVReader extends RecordIterator {
+
+    private final char delimiter;
+    private final int quotes;
+    private final int backslash;
+
+    private int c;
+    private final StringBuilder str = new StringBuilder();
+
+    /**
+     * Creates a new CSV reader.
+     *
+     * @param in The reader to read from
+     * @param delimiter The field delimiter
+     * @param quotes The quote character, or <code>-2</code> if there is none
+     * @param backslash The escape character, or <code>-2</code> if there is none
+     */
+    CSVReader(Reader in, char delimiter, int quotes, int backslash) {
+        super(in);
+        if(quotes == delimiter)
+            throw new IllegalArgumentException("Quotes cannot be the same character as the delimiter");
+        if(backslash == delimiter)
+            throw new IllegalArgumentException("Backslash cannot be the same character as the delimiter");
+        if(quotes != -2 && quotes == backslash)
+            throw new IllegalArgumentException("Quotes cannot be the same character as backslash");
+        this.delimiter = delimiter;
+        this.quotes = quotes;
+        this.backslash = backslash;
+        try {
+            c = in.read();
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    @Override
+    List<String> read() {
+        try {
+            if(c == -1) {
+                in.close();
+                return null;
+            }
+            List<String> record = new ArrayList<>();
+            while(c != -1) {
+                str.setLength(0);
+                if(c == quotes) {
+                    while((c = in.read()) != -1 && (c != quotes || (c = in.read()) == quotes)) {
+                        if(c == backslash) {
+                            c = in.read();
+                            switch(c) {
+                                case 'r':
+                                    c = '\r';
+                                    break;
+                                case 'n':
+                                    c = '\n';
+                                    break;
+                                case 't':
+                                    c = '\t';
+                                    break;
+                                default:
+                                    if(c != delimiter && c != quotes)
+                                        str.append((char) backslash);
+                            }
+                        }
+                        str.append((char) c);
+                    }
+                }
+                while(c != -1 && c != delimiter && c != '\r' && c != '\n') {
+                    str.append((char) c);
+                    c = in.read();
+                }
+                if(c == '\r') {
+                    c = in.read();
+                    if(c == '\n')
+                        c = in.read();
+                    record.add(str.toString());
+                    return record;
+                }
+                else if(c == '\n') {
+                    c = in.read();
+                    record.add(str.toString());
+                    return record;
+                }
+                else c = in.read();
+                record.add(str.toString());
+            }
+            return record;
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    @Override
+    boolean skip() {
+        try {
+            if(c == -1) {
+                in.close();
+                return false;
+            }
+            while(c != -1) {
+                if(c == quotes) {
+                    while((c = in.read()) != -1 && (c != quotes || (c = in.read()) == quotes))
+                        if(c == backslash)
+                            in.read();
+                }
+                while(c != -1 && c != delimiter && c != '\r' && c != '\n')
+                    c = in.read();
+                if(c == '\r') {
+                    c = in.read();
+                    if(c == '\n')
+                        c = in.read();
+                    return true;
+                }
+                else if(c == '\n') {
+                    c = in.read();
+                    return true;
+                }
+                else c = in.read();
+            }
+            return true;
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import de.rccookie.util.Arguments;
+import de.rccookie.util.Table;
+import de.rccookie.util.Utils;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An in-memory cache for parsed CSV and TSV files. Tables are keyed on the file's path,
+ * the format parameters and charset used to parse it and the file's modification time
+ * and size, so a changed file will be parsed again on the next access. The cache is
+ * bounded by an estimate of the memory retained by the cached tables and evicts the
+ * least recently used tables first. Concurrent requests for the same file only cause a
+ * single parse.
+ * <p>The cache holds the parsed records, which are shared between all callers and
+ * cannot be modified. They are returned directly by <code>loadRaw</code> and
+ * <code>loadTSVRaw</code>, which is cheap for every cache hit. <code>load</code> and
+ * <code>loadTSV</code> build a new table for each call, which costs about as much as
+ * building the table from the parsed records, but not parsing them again. Whether the
+ * first record is used as header does not affect the cached records, so loading a file
+ * with and without header only parses it once.</p>
+ * <p>Files are decoded with the platform's default charset unless a charset is
+ * specified.</p>
+ */
+public final class CsvCache {
+
+    private static final long TABLE_OVERHEAD = 256;
+    private static final long ROW_OVERHEAD = 64;
+    private static final long CELL_OVERHEAD = 48;
+
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxBytes The approximate maximum number of bytes retained by the cached tables
+     */
+    public CsvCache(long maxBytes) {
+        if(maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes < 0");
+        this.maxBytes = maxBytes;
+    }
+
+
+    public Table<String, String> load(Path file, boolean header) {
+        return load(file, ',', header);
+    }
+
+    public Table<String, String> load(Path file, char delimiter, boolean header) {
+        return CSV.toTable(get(new Key(file, false, delimiter, null)), header);
+    }
+
+    public Table<String, String> load(Path file, Charset charset, boolean header) {
+        return load(file, ',', charset, header);
+    }
+
+    public Table<String, String> load(Path file, char delimiter, Charset charset, boolean header) {
+        return CSV.toTable(get(new Key(file, false, delimiter, Arguments.checkNull(charset, "charset"))), header);
+    }
+
+    public <L> Table<L, String> load(Path file, Collection<? extends L> labels) {
+        return load(file, ',', labels);
+    }
+
+    public <L> Table<L, String> load(Path file, char delimiter, Collection<? extends L> labels) {
+        return CSV.toTable(get(new Key(file, false, delimiter, null)), labels);
+    }
+
+    public <L> Table<L, String> load(Path file, Charset charset, Collection<? extends L> labels) {
+        return load(file, ',', charset, labels);
+    }
+
+    public <L> Table<L, String> load(Path file, char delimiter, Charset charset, Collection<? extends L> labels) {
+        return CSV.toTable(get(new Key(file, false, delimiter, Arguments.checkNull(charset, "charset"))), labels);
+    }
+
+    public Table<String, String> loadTSV(Path file, boolean header) {
+        return loadTSV(file, '\t', header);
+    }
+
+    public Table<String, String> loadTSV(Path file, char delimiter, boolean header) {
+        return CSV.toTable(get(new Key(file, true, delimiter, null)), header);
+    }
+
+    public Table<String, String> loadTSV(Path file, Charset charset, boolean header) {
+        return loadTSV(file, '\t', charset, header);
+    }
+
+    public Table<String, String> loadTSV(Path file, char delimiter, Charset charset, boolean header) {
+        return CSV.toTable(get(new Key(file, true, delimiter, Arguments.checkNull(charset, "charset"))), header);
+    }
+
+    public <L> Table<L, String> loadTSV(Path file, Collection<? extends L> labels) {
+        return loadTSV(file, '\t', labels);
+    }
+
+    public <L> Table<L, String> loadTSV(Path file, char delimiter, Collection<? extends L> labels) {
+        return CSV.toTable(get(new Key(file, true, delimiter, null)), labels);
+    }
+
+    public <L> Table<L, String> loadTSV(Path file, Charset charset, Collection<? extends L> labels) {
+        return loadTSV(file, '\t', charset, labels);
+    }
+
+    public <L> Table<L, String> loadTSV(Path file, char delimiter, Charset charset, Collection<? extends L> labels) {
+        return CSV.toTable(get(new Key(file, true, delimiter, Arguments.checkNull(charset, "charset"))), labels);
+    }
+
+    public List<List<String>> loadRaw(Path file) {
+        return loadRaw(file, ',');
+    }
+
+    /**
+     * Returns the cached records of the given CSV file, including the header if the file
+     * has one. The returned list and its records are shared with other callers and
+     * cannot be modified.
+     *
+     * @param file The file to load
+     * @param delimiter The field delimiter
+     * @return The records of the file
+     */
+    public List<List<String>> loadRaw(Path file, char delimiter) {
+        return get(new Key(file, false, delimiter, null));
+    }
+
+    public List<List<String>> loadRaw(Path file, Charset charset) {
+        return loadRaw(file, ',', charset);
+    }
+
+    public List<List<String>> loadRaw(Path file, char delimiter, Charset charset) {
+        return get(new Key(file, false, delimiter, Arguments.checkNull(charset, "charset")));
+    }
+
+    public List<List<String>> loadTSVRaw(Path file) {
+        return loadTSVRaw(file, '\t');
+    }
+
+    /**
+     * Returns the cached records of the given TSV file, including the header if the file
+     * has one. The returned list and its records are shared with other callers and
+     * cannot be modified.
+     *
+     * @param file The file to load
+     * @param delimiter The field delimiter
+     * @return The records of the file
+     */
+    public List<List<String>> loadTSVRaw(Path file, char delimiter) {
+        return get(new Key(file, true, delimiter, null));
+    }
+
+    public List<List<String>> loadTSVRaw(Path file, Charset charset) {
+        return loadTSVRaw(file, '\t', charset);
+    }
+
+    public List<List<String>> loadTSVRaw(Path file, char delimiter, Charset charset) {
+        return get(new Key(file, true, delimiter, Arguments.checkNull(charset, "charset")));
+    }
+
+
+    /**
+     * Removes all cached tables of the given file, regardless of the format they were
+     * parsed with.
+     *
+     * @param file The file to remove from the cache
+     */
+    public synchronized void invalidate(Path file) {
+        Path path = Arguments.checkNull(file, "file").toAbsolutePath().normalize();
+        for(Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Entry> e = it.next();
+            if(e.getKey().path.equals(path)) {
+                bytes -= e.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all tables from the cache. Statistics are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the tables currently in the cache.
+     *
+     * @return The estimated size of the cache contents
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of calls that were answered from the cache, including calls
+     * that waited for a parse already started by another thread.
+     *
+     * @return The number of cache hits
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CsvCache{" +
+               "entries=" + entries.size() +
+               ", bytes=" + bytes +
+               ", maxBytes=" + maxBytes +
+               ", hits=" + hits +
+               ", misses=" + misses +
+               ", evictions=" + evictions +
+               '}';
+    }
+
+
+    private List<List<String>> get(Key key) {
+        long modified, fileSize;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key.path, BasicFileAttributes.class);
+            modified = attributes.lastModifiedTime().toMillis();
+            fileSize = attributes.size();
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+
+        Entry entry;
+        boolean owner = false;
+        synchronized(this) {
+            entry = entries.get(key);
+            if(entry != null && (entry.modified != modified || entry.fileSize != fileSize)) {
+                entries.remove(key);
+                bytes -= entry.bytes;
+                entry = null;
+            }
+            if(entry == null) {
+                entry = new Entry(modified, fileSize);
+                entries.put(key, entry);
+                owner = true;
+                misses++;
+            }
+            else hits++;
+        }
+
+        if(owner) {
+            Parsed parsed;
+            try {
+                parsed = parse(key);
+            } catch(Throwable t) {
+                // parse() also throws IOExceptions, unchecked
+                synchronized(this) {
+                    entries.remove(key, entry);
+                }
+                entry.result.completeExceptionally(t);
+                throw Utils.rethrow(t);
+            }
+            synchronized(this) {
+                entry.bytes = parsed.bytes;
+                entry.loading = false;
+                if(entries.get(key) == entry) {
+                    bytes += parsed.bytes;
+                    evict();
+                }
+            }
+            entry.result.complete(parsed);
+        }
+
+        Parsed parsed;
+        try {
+            parsed = entry.result.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Utils.rethrow(e);
+        } catch(ExecutionException e) {
+            throw Utils.rethrow(e.getCause());
+        }
+        return parsed.data;
+    }
+
+    private Parsed parse(Key key) {
+        List<List<String>> data = new ArrayList<>();
+        long size = TABLE_OVERHEAD;
+        try(Reader in = reader(key)) {
+            for(List<String> record : key.tsv ? TSV.parseRaw(in, key.delimiter) : CSV.parseRaw(in, key.delimiter)) {
+                data.add(Collections.unmodifiableList(record));
+                size += ROW_OVERHEAD + 8L * record.size();
+                for(String value : record)
+                    size += CELL_OVERHEAD + 2L * value.length();
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+        return new Parsed(Collections.unmodifiableList(data), size);
+    }
+
+    private static Reader reader(Key key) throws IOException {
+        InputStream in = Files.newInputStream(key.path);
+        return key.charset != null ? DecodingReader.of(in, key.charset) : new InputStreamReader(in);
+    }
+
+    private void evict() {
+        for(Iterator<Entry> it = entries.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            Entry entry = it.next();
+            if(entry.loading)
+                continue;
+            bytes -= entry.bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+
+    private static final class Key {
+        final Path path;
+        final boolean tsv;
+        final char delimiter;
+        @Nullable
+        final Charset charset;
+
+        Key(Path path, boolean tsv, char delimiter, @Nullable Charset charset) {
+            this.path = Arguments.checkNull(path, "file").toAbsolutePath().normalize();
+            this.tsv = tsv;
+            this.delimiter = delimiter;
+            this.charset = charset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return tsv == key.tsv && delimiter == key.delimiter && path.equals(key.path) && Objects.equals(charset, key.charset);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, tsv, delimiter, charset);
+        }
+    }
+
+    private static final class Entry {
+        final long modified;
+        final long fileSize;
+        final CompletableFuture<Parsed> result = new CompletableFuture<>();
+        long bytes = 0;
+        boolean loading = true;
+
+        Entry(long modified, long fileSize) {
+            this.modified = modified;
+            this.fileSize = fileSize;
+        }
+    }
+
+    private static final class Parsed {
+        final List<List<String>> data;
+        final long bytes;
+
+        Parsed(List<List<String>> data, long bytes) {
+            this.data = data;
+            this.bytes = bytes;
+        }
+    }
+}
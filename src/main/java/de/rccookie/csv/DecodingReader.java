@@ -0,0 +1,202 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import de.rccookie.util.Arguments;
+
+/**
+ * A buffered reader specialized on decoding US-ASCII, ISO-8859-1 and UTF-8 input. Runs
+ * of ASCII bytes are widened directly into the char buffer, only non-ASCII bytes of UTF-8
+ * input are passed to a {@link CharsetDecoder}. Malformed input is replaced, same as
+ * with an {@link InputStreamReader}. A UTF-8 byte order mark at the start of the input
+ * is skipped.
+ */
+final class DecodingReader extends Reader {
+
+    private static final int ASCII = 0;
+    private static final int LATIN_1 = 1;
+    private static final int UTF_8 = 2;
+
+    private static final int BUFFER_SIZE = 8192;
+
+
+    private final InputStream in;
+    private final int mode;
+    private final CharsetDecoder decoder;
+
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private int bytePos = 0, byteLimit = 0;
+    private boolean eof = false;
+    private boolean bomChecked = false;
+
+    private final char[] chars = new char[BUFFER_SIZE];
+    private int charPos = 0, charLimit = 0;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+
+    private DecodingReader(InputStream in, int mode) {
+        this.in = in;
+        this.mode = mode;
+        this.decoder = mode != UTF_8 ? null : StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Returns a reader decoding the given input stream with the specified charset. For
+     * US-ASCII, ISO-8859-1 and UTF-8 this will be a specialized reader, for all other
+     * charsets a regular {@link InputStreamReader}.
+     *
+     * @param in The stream to decode
+     * @param charset The charset to decode the input with
+     * @return A reader over the decoded input
+     */
+    static Reader of(InputStream in, Charset charset) {
+        Arguments.checkNull(in, "in");
+        Arguments.checkNull(charset, "charset");
+        if(charset.equals(StandardCharsets.UTF_8))
+            return new DecodingReader(in, UTF_8);
+        if(charset.equals(StandardCharsets.ISO_8859_1))
+            return new DecodingReader(in, LATIN_1);
+        if(charset.equals(StandardCharsets.US_ASCII))
+            return new DecodingReader(in, ASCII);
+        return new InputStreamReader(in, charset);
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        if(charPos == charLimit && !fill())
+            return -1;
+        return chars[charPos++];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+        if(len == 0)
+            return 0;
+        if(charPos == charLimit && !fill())
+            return -1;
+        int n = Math.min(len, charLimit - charPos);
+        System.arraycopy(chars, charPos, cbuf, off, n);
+        charPos += n;
+        return n;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return charPos < charLimit || (bomChecked && bytePos < byteLimit) || in.available() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+
+    private boolean fill() throws IOException {
+        charPos = charLimit = 0;
+        while(true) {
+            if(!bomChecked) {
+                if(byteLimit < 3 && !eof) {
+                    readBytes();
+                    continue;
+                }
+                bomChecked = true;
+                if(mode == UTF_8 && byteLimit >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF)
+                    bytePos = 3;
+            }
+            if(bytePos < byteLimit) {
+                decode();
+                if(charLimit != 0)
+                    return true;
+            }
+            if(eof) {
+                if(bytePos == byteLimit)
+                    return false;
+                // Truncated multibyte sequence at the end of the input
+                byteBuffer.limit(byteLimit).position(bytePos);
+                charBuffer.clear();
+                decoder.decode(byteBuffer, charBuffer, true);
+                decoder.flush(charBuffer);
+                bytePos = byteLimit;
+                charLimit = charBuffer.position();
+                return charLimit != 0;
+            }
+            readBytes();
+        }
+    }
+
+    private void readBytes() throws IOException {
+        if(bytePos != 0) {
+            System.arraycopy(bytes, bytePos, bytes, 0, byteLimit - bytePos);
+            byteLimit -= bytePos;
+            bytePos = 0;
+        }
+        int n = in.read(bytes, byteLimit, bytes.length - byteLimit);
+        if(n < 0)
+            eof = true;
+        else byteLimit += n;
+    }
+
+    private void decode() {
+        byte[] b = bytes;
+        char[] c = chars;
+        int bp = bytePos, bl = byteLimit;
+        int cp = charLimit, cl = c.length;
+
+        if(mode == LATIN_1) {
+            int end = bp + Math.min(bl - bp, cl - cp);
+            while(bp < end)
+                c[cp++] = (char) (b[bp++] & 0xFF);
+        }
+        else if(mode == ASCII) {
+            int end = bp + Math.min(bl - bp, cl - cp);
+            while(bp < end) {
+                byte x = b[bp++];
+                c[cp++] = x >= 0 ? (char) x : '\uFFFD';
+            }
+        }
+        else while(bp < bl && cp < cl) {
+            int end = bp + Math.min(bl - bp, cl - cp);
+            while(bp < end && b[bp] >= 0)
+                c[cp++] = (char) b[bp++];
+            if(bp == end)
+                continue;
+
+            // A multibyte sequence never contains ASCII bytes, so if the non-ASCII run is
+            // followed by an ASCII byte, an unfinished sequence at its end is malformed
+            int runEnd = bp;
+            while(runEnd < bl && b[runEnd] < 0)
+                runEnd++;
+            boolean complete = runEnd < bl;
+
+            byteBuffer.limit(runEnd).position(bp);
+            charBuffer.limit(cl).position(cp);
+            CoderResult result = decoder.decode(byteBuffer, charBuffer, complete);
+            if(complete)
+                decoder.reset();
+            bp = byteBuffer.position();
+            cp = charBuffer.position();
+            if(result.isOverflow() || bp < runEnd)
+                break;
+        }
+
+        bytePos = bp;
+        charLimit = cp;
+    }
+}
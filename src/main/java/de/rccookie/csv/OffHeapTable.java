@@ -0,0 +1,416 @@
+package de.rccookie.csv;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+import de.rccookie.util.RowMajorTable;
+import de.rccookie.util.Table;
+import de.rccookie.util.Utils;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A read-only table of strings whose cells are stored UTF-8 encoded in direct (off-heap)
+ * memory, together with the offsets of each cell and row. Cells are only decoded into
+ * strings when they are accessed, so the heap usage of the table itself does not depend
+ * on the number of cells, which avoids long garbage collection pauses for very large
+ * tables.
+ * <p>The off-heap memory is released when the table is {@link #close() closed}, or
+ * otherwise once the table gets garbage collected. Closing waits for reads in progress
+ * on other threads; after that, any access to the table's contents fails with an
+ * {@link IllegalStateException}.</p>
+ * <p>Unpaired surrogate chars cannot be represented in UTF-8 and are stored as
+ * <code>'?'</code>. Rows shorter than the widest row are padded with empty strings.</p>
+ */
+public final class OffHeapTable implements AutoCloseable {
+
+    private static final int DATA_CHUNK_SHIFT = 22;
+    private static final int INDEX_CHUNK_SHIFT = 22;
+
+
+    private final List<String> columnLabels;
+    private final int rowCount;
+    private final int columnCount;
+
+    private final Chunks data;
+    private final Chunks cells;
+    private final Chunks rows;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile boolean closed = false;
+
+
+    private OffHeapTable(List<String> columnLabels, int rowCount, int columnCount, Chunks data, Chunks cells, Chunks rows) {
+        this.columnLabels = columnLabels;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.data = data;
+        this.cells = cells;
+        this.rows = rows;
+    }
+
+    /**
+     * Stores the given records in a new off-heap table.
+     *
+     * @param records The records to store
+     * @param header Whether the first record should be used as column labels
+     * @return The table with the records
+     */
+    static OffHeapTable of(Iterator<? extends List<String>> records, boolean header) {
+        Chunks data = new Chunks(DATA_CHUNK_SHIFT);
+        Chunks cells = new Chunks(INDEX_CHUNK_SHIFT);
+        Chunks rows = new Chunks(INDEX_CHUNK_SHIFT);
+        try {
+            List<String> labels = Collections.emptyList();
+            if(header && records.hasNext())
+                labels = Collections.unmodifiableList(new ArrayList<>(records.next()));
+
+            int rowCount = 0;
+            int columnCount = labels.size();
+            long cellCount = 0;
+            while(records.hasNext()) {
+                List<String> record = records.next();
+                if(rowCount == Integer.MAX_VALUE)
+                    throw new IllegalArgumentException("Too many rows for an off-heap table");
+                rows.putLong(cellCount);
+                for(String value : record) {
+                    cells.putLong(data.size());
+                    data.putUTF8(value);
+                }
+                cellCount += record.size();
+                columnCount = Math.max(columnCount, record.size());
+                rowCount++;
+            }
+            rows.putLong(cellCount);
+            cells.putLong(data.size());
+
+            data.trim();
+            cells.trim();
+            rows.trim();
+            return new OffHeapTable(labels, rowCount, columnCount, data, cells, rows);
+        } catch(Throwable t) {
+            // The parser also throws IOExceptions, unchecked
+            data.free();
+            cells.free();
+            rows.free();
+            throw Utils.rethrow(t);
+        }
+    }
+
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int columnCount() {
+        return columnCount;
+    }
+
+    public boolean columnsAreLabeled() {
+        return !columnLabels.isEmpty();
+    }
+
+    /**
+     * Returns the column labels of this table, if the table was loaded with a header.
+     * Otherwise, an empty list will be returned.
+     *
+     * @return The column labels
+     */
+    public List<String> columnLabels() {
+        return columnLabels;
+    }
+
+    /**
+     * Decodes the value of the specified cell.
+     *
+     * @param row The row index of the cell
+     * @param column The column index of the cell
+     * @return The value of the cell, <code>""</code> if the row is shorter than the column index
+     */
+    public String get(int row, int column) {
+        Objects.checkIndex(row, rowCount);
+        Objects.checkIndex(column, columnCount);
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            long first = rows.getLong(row);
+            return decode(first, rows.getLong(row + 1) - first, column);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Decodes all values of the specified row at once, which is cheaper than decoding them
+     * one by one with {@link #get(int, int)}.
+     *
+     * @param row The index of the row
+     * @return The row's values, padded with empty strings to the column count
+     */
+    public List<String> row(int row) {
+        Objects.checkIndex(row, rowCount);
+        String[] values = new String[columnCount];
+        long stamp = lock.readLock();
+        try {
+            checkOpen();
+            long first = rows.getLong(row);
+            long length = rows.getLong(row + 1) - first;
+            for(int i=0; i<values.length; i++)
+                values[i] = decode(first, length, i);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * Returns a view of all rows of this table, excluding the header. Each row is decoded
+     * when it is accessed, as with {@link #row(int)}.
+     *
+     * @return The rows of this table
+     */
+    public List<List<String>> rows() {
+        return new AbstractList<>() {
+            @Override
+            public List<String> get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * Decodes all cells of this table into a regular on-heap table.
+     *
+     * @return A new table with the contents of this table
+     */
+    @NotNull
+    public Table<String, String> toTable() {
+        Table<String, String> table = columnsAreLabeled() ? new RowMajorTable<>("", columnLabels) : new RowMajorTable<>("");
+        table.addRowsOrdered(rows());
+        return table;
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory allocated by this table.
+     *
+     * @return The off-heap memory size of this table, 0 if it is closed
+     */
+    public long offHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return data.capacity() + cells.capacity() + rows.capacity();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the off-heap memory of this table, after waiting for reads in progress to
+     * finish. Closing an already closed table has no effect.
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if(closed) return;
+            closed = true;
+            data.free();
+            cells.free();
+            rows.free();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapTable{" +
+               "rows=" + rowCount +
+               ", columns=" + columnCount +
+               ", closed=" + closed +
+               '}';
+    }
+
+    /**
+     * Decodes a cell of a row. Must be called while holding the read lock.
+     *
+     * @param first The index of the row's first cell
+     * @param length The number of cells stored for the row
+     * @param column The column index of the cell
+     * @return The value of the cell, <code>""</code> if the row is shorter than the column index
+     */
+    private String decode(long first, long length, int column) {
+        if(column >= length)
+            return "";
+        return data.getUTF8(cells.getLong(first + column), cells.getLong(first + column + 1));
+    }
+
+    private void checkOpen() {
+        if(closed)
+            throw new IllegalStateException("Table is closed");
+    }
+
+
+    /**
+     * Growable sequence of direct byte buffers of equal size, addressed by a long offset.
+     */
+    private static final class Chunks {
+
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch(Exception ignored) {
+                // Memory will be released once the buffers get garbage collected
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+
+        private final int shift;
+        private final int mask;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current = null;
+        private long size = 0;
+
+        Chunks(int shift) {
+            this.shift = shift;
+            this.mask = (1 << shift) - 1;
+        }
+
+        long size() {
+            return size;
+        }
+
+        long capacity() {
+            long capacity = 0;
+            for(ByteBuffer chunk : chunks)
+                capacity += chunk.capacity();
+            return capacity;
+        }
+
+        void put(byte b) {
+            if(current == null || !current.hasRemaining()) {
+                current = ByteBuffer.allocateDirect(1 << shift);
+                chunks.add(current);
+            }
+            current.put(b);
+            size++;
+        }
+
+        void putLong(long value) {
+            if(current == null || !current.hasRemaining()) {
+                current = ByteBuffer.allocateDirect(1 << shift);
+                chunks.add(current);
+            }
+            current.putLong(value);
+            size += Long.BYTES;
+        }
+
+        long getLong(long index) {
+            long offset = index * Long.BYTES;
+            return chunks.get((int) (offset >>> shift)).getLong((int) (offset & mask));
+        }
+
+        void putUTF8(String str) {
+            for(int i=0, length=str.length(); i<length; i++) {
+                char c = str.charAt(i);
+                if(c < 0x80)
+                    put((byte) c);
+                else if(c < 0x800) {
+                    put((byte) (0xC0 | (c >> 6)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                }
+                else if(Character.isSurrogate(c)) {
+                    if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+                        int cp = Character.toCodePoint(c, str.charAt(++i));
+                        put((byte) (0xF0 | (cp >> 18)));
+                        put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                        put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                        put((byte) (0x80 | (cp & 0x3F)));
+                    }
+                    else put((byte) '?');
+                }
+                else {
+                    put((byte) (0xE0 | (c >> 12)));
+                    put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        String getUTF8(long from, long to) {
+            int length = (int) (to - from);
+            if(length == 0)
+                return "";
+            byte[] bytes = new byte[length];
+            int chunk = (int) (from >>> shift);
+            int offset = (int) (from & mask);
+            for(int i=0; i<length; chunk++, offset=0) {
+                ByteBuffer buffer = chunks.get(chunk);
+                int end = Math.min(buffer.capacity(), offset + length - i);
+                while(offset < end)
+                    bytes[i++] = buffer.get(offset++);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Replaces the last chunk with one of exactly the used size, so small tables
+         * don't keep a whole chunk allocated. Must only be called once writing is done.
+         */
+        void trim() {
+            if(current == null || !current.hasRemaining())
+                return;
+            ByteBuffer trimmed = ByteBuffer.allocateDirect(current.position());
+            current.flip();
+            trimmed.put(current);
+            free(current);
+            chunks.set(chunks.size() - 1, trimmed);
+            current = trimmed;
+        }
+
+        void free() {
+            for(ByteBuffer chunk : chunks)
+                free(chunk);
+            chunks.clear();
+            current = null;
+        }
+
+        private static void free(ByteBuffer buffer) {
+            if(INVOKE_CLEANER == null)
+                return;
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch(Exception ignored) {
+                // Released on garbage collection instead
+            }
+        }
+    }
+}
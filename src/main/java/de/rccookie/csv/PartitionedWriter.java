@@ -0,0 +1,205 @@
+package de.rccookie.csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import de.rccookie.util.Arguments;
+import de.rccookie.util.Utils;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes rows into one file per partition. Existing files are replaced: the first time
+ * the writer opens a file, the file is truncated and starts with the header. At most a
+ * fixed number of files is kept open at a time; when another file is needed, the least
+ * recently used one is closed, and opened again in append mode if more rows for it
+ * follow. Partitions mapped to the same file share it. When writing many rows at once,
+ * the rows are formatted in parallel in batches of bounded size. Apart from the paths of
+ * the files opened so far, memory usage thus does not depend on the number of rows or
+ * partitions.
+ *
+ * @param <K> The type of partition keys
+ */
+public final class PartitionedWriter<K> implements AutoCloseable {
+
+    /**
+     * The maximum number of open files used when writing a table partitioned.
+     */
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    private static final int BATCH_SIZE = 4096;
+
+
+    private final Function<? super K, ? extends Path> files;
+    private final String header;
+    private final int maxOpenFiles;
+
+    private final char delimiter;
+    private final int quotes;
+    private final boolean backslashEscapes;
+    private final boolean alwaysEnquote;
+    private final String lineSeparator;
+
+    private final LinkedHashMap<Path, Writer> open = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> opened = new HashSet<>();
+    private boolean closed = false;
+
+
+    /**
+     * Creates a new partitioned writer.
+     *
+     * @param files Maps each partition to the file its rows are written to
+     * @param header The header to write at the start of each file, or <code>null</code>
+     * @param format The format to write in. Only <code>'\'</code> is supported as backslash
+     * @param options Options for writing, see {@link CSV#ALWAYS_ENQUOTE} and {@link CSV#ONLY_LINE_FEED}
+     * @param maxOpenFiles The maximum number of files open at the same time
+     */
+    public PartitionedWriter(Function<? super K, ? extends Path> files, @Nullable List<?> header, CSVFormat format, long options, int maxOpenFiles) {
+        this.files = Arguments.checkNull(files, "files");
+        Arguments.checkNull(format, "format");
+        if(format.backslash() != null && format.backslash() != '\\')
+            throw new IllegalArgumentException("Only '\\' is supported as backslash for writing");
+        if(maxOpenFiles < 1)
+            throw new IllegalArgumentException("maxOpenFiles < 1");
+        this.maxOpenFiles = maxOpenFiles;
+        this.delimiter = format.delimiter();
+        this.quotes = format.quotes() != null ? format.quotes() : -2;
+        this.backslashEscapes = format.backslash() != null;
+        this.alwaysEnquote = (options & CSV.ALWAYS_ENQUOTE) != 0;
+        this.lineSeparator = (options & CSV.ONLY_LINE_FEED) != 0 ? "\n" : "\r\n";
+        this.header = header != null ? format(header) : null;
+    }
+
+
+    /**
+     * Writes a single row into the given partition.
+     *
+     * @param row The values of the row
+     * @param partition The partition to write the row into
+     */
+    public synchronized void write(List<?> row, K partition) {
+        try {
+            writer(file(partition)).write(format(row));
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public void writeAll(Stream<? extends List<?>> rows, Function<? super List<?>, ? extends K> partition) {
+        writeAll(rows.iterator(), partition);
+    }
+
+    /**
+     * Writes all the given rows, each into the partition determined by the partition
+     * function. Rows are partitioned and formatted in parallel, but written in order.
+     * The partition function and the file function may thus be called concurrently.
+     *
+     * @param rows The rows to write
+     * @param partition Determines the partition of each row
+     */
+    public synchronized void writeAll(Iterator<? extends List<?>> rows, Function<? super List<?>, ? extends K> partition) {
+        Arguments.checkNull(partition, "partition");
+        List<List<?>> batch = new ArrayList<>(BATCH_SIZE);
+        Path[] paths = new Path[BATCH_SIZE];
+        String[] lines = new String[BATCH_SIZE];
+        try {
+            while(rows.hasNext()) {
+                batch.clear();
+                while(batch.size() < BATCH_SIZE && rows.hasNext())
+                    batch.add(rows.next());
+                int size = batch.size();
+                IntStream.range(0, size).parallel().forEach(i -> {
+                    paths[i] = file(partition.apply(batch.get(i)));
+                    lines[i] = format(batch.get(i));
+                });
+                for(int i=0; i<size; i++) {
+                    writer(paths[i]).write(lines[i]);
+                    paths[i] = null;
+                    lines[i] = null;
+                }
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    /**
+     * Flushes and closes all open files.
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) return;
+        closed = true;
+        IOException exception = null;
+        for(Writer writer : open.values()) {
+            try {
+                writer.close();
+            } catch(IOException e) {
+                if(exception == null)
+                    exception = e;
+                else exception.addSuppressed(e);
+            }
+        }
+        open.clear();
+        if(exception != null)
+            throw Utils.rethrow(exception);
+    }
+
+
+    private Path file(K partition) {
+        return Arguments.checkNull(files.apply(partition), "file").toAbsolutePath().normalize();
+    }
+
+    private Writer writer(Path file) throws IOException {
+        if(closed)
+            throw new IllegalStateException("Writer is closed");
+        Writer writer = open.get(file);
+        if(writer != null)
+            return writer;
+
+        if(open.size() >= maxOpenFiles) {
+            Iterator<Writer> eldest = open.values().iterator();
+            Writer evicted = eldest.next();
+            eldest.remove();
+            evicted.close();
+        }
+
+        if(opened.add(file)) {
+            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file)));
+            if(header != null)
+                writer.write(header);
+        }
+        else writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        open.put(file, writer);
+        return writer;
+    }
+
+    private String format(List<?> row) {
+        StringBuilder str = new StringBuilder();
+        try {
+            for(int i=0, size=row.size(); i<size; i++) {
+                if(i != 0)
+                    str.append(delimiter);
+                if(quotes == -2 && backslashEscapes)
+                    TSVWriter.writeValue(row.get(i), str, delimiter, alwaysEnquote);
+                else CSV.writeValue(row.get(i), str, delimiter, quotes, backslashEscapes, alwaysEnquote);
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+        return str.append(lineSeparator).toString();
+    }
+}
@@ -0,0 +1,66 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import de.rccookie.util.StepIterator;
+import de.rccookie.util.Utils;
+
+/**
+ * Base class of the record parsers. In addition to iterating over the parsed records,
+ * records can be skipped with a scan that only tracks the record structure and does
+ * not create any objects. {@link #read()} and {@link #skip()} must not be mixed with
+ * the iterator methods.
+ */
+abstract class RecordIterator extends StepIterator<List<String>> {
+
+    final Reader in;
+
+    RecordIterator(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns a parser for the given format. Formats without quotes use a {@link TSVReader}.
+     *
+     * @param in The reader to parse from
+     * @param format The format to parse
+     * @return A parser for the input
+     */
+    static RecordIterator of(Reader in, CSVFormat format) {
+        int backslash = format.backslash() != null ? format.backslash() : -2;
+        if(format.quotes() == null)
+            return new TSVReader(in, format.delimiter(), backslash);
+        return new CSVReader(in, format.delimiter(), format.quotes(), backslash);
+    }
+
+    @Override
+    protected List<String> getNext() {
+        return read();
+    }
+
+    /**
+     * Parses the next record. When the end of the input is reached, the input will be
+     * closed.
+     *
+     * @return The next record, or <code>null</code> if the end of the input was reached
+     */
+    abstract List<String> read();
+
+    /**
+     * Moves past the next record without parsing it. When the end of the input is reached,
+     * the input will be closed.
+     *
+     * @return Whether there was a record to skip
+     */
+    abstract boolean skip();
+
+    void close() {
+        try {
+            in.close();
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+}
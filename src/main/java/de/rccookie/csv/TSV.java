@@ -11,11 +11,14 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 
+import de.rccookie.util.Arguments;
 import de.rccookie.util.ListStream;
 import de.rccookie.util.Table;
 import de.rccookie.util.Utils;
@@ -158,7 +161,58 @@ public final class TSV {
     }
 
     public static void write(Table<?,?> table, Appendable out, char delimiter, long options) {
-        CSV.write(table, out, delimiter, -2, true, options);
+        TSVWriter.write(table, out, delimiter, true, options);
+    }
+
+
+    public static void append(Table<?,?> table, Path file) {
+        append(table, file, 0);
+    }
+
+    public static void append(Table<?,?> table, Path file, long options) {
+        append(table, file, '\t', options);
+    }
+
+    public static void append(Table<?,?> table, Path file, char delimiter) {
+        append(table, file, delimiter, 0);
+    }
+
+    /**
+     * Appends the rows of the given table to the specified file, without rewriting the
+     * existing contents of the file. If the file does not exist or is empty, the table
+     * will be written including its header. Otherwise, if the table has column labels,
+     * the first record of the file has to match them. If the file does not end with a
+     * line break, one will be inserted before the new rows.
+     *
+     * @param table The table whose rows to append
+     * @param file The file to append to
+     * @param delimiter The delimiter used in the file
+     * @param options Options for writing, see {@link #ONLY_LINE_FEED}
+     * @throws IllegalArgumentException If the file's header does not match the table's column labels
+     */
+    public static void append(Table<?,?> table, Path file, char delimiter, long options) {
+        CSV.append(table, file, delimiter, true, options);
+    }
+
+
+    public static <K> void writePartitioned(Table<?,?> table, Function<? super List<?>, ? extends K> partition, Function<? super K, ? extends Path> files) {
+        writePartitioned(table, partition, files, 0);
+    }
+
+    /**
+     * Writes the rows of the given table into multiple files, determined by the given
+     * partition function. Existing files are replaced, and each file gets the table's
+     * header. If the table's rows are labeled, the row label is the first value of the
+     * rows passed to the partition function. See {@link PartitionedWriter} for more
+     * control.
+     *
+     * @param table The table to write
+     * @param partition Determines the partition of each row
+     * @param files Maps each partition to the file its rows are written to
+     * @param options Options for writing, see {@link #ONLY_LINE_FEED}
+     */
+    public static <K> void writePartitioned(Table<?,?> table, Function<? super List<?>, ? extends K> partition, Function<? super K, ? extends Path> files, long options) {
+        CSV.writePartitioned(table, partition, files, CSVFormat.TSV, options);
     }
 
 
@@ -195,6 +249,18 @@ public final class TSV {
         return parse(new InputStreamReader(csv), '\t', labels);
     }
 
+    public static <L> Table<L, String> parse(Path file, Charset charset, Collection<? extends L> labels) {
+        try {
+            return parse(Files.newInputStream(file), charset, labels);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static <L> Table<L, String> parse(InputStream csv, Charset charset, Collection<? extends L> labels) {
+        return parse(DecodingReader.of(csv, charset), '\t', labels);
+    }
+
     public static <L> Table<L, String> parse(Reader in, Collection<? extends L> labels) {
         return parse(in, '\t', labels);
     }
@@ -232,6 +298,18 @@ public final class TSV {
         return parse(new InputStreamReader(csv), delimiter, labels);
     }
 
+    public static <L> Table<L, String> parse(Path file, char delimiter, Charset charset, Collection<? extends L> labels) {
+        try {
+            return parse(Files.newInputStream(file), delimiter, charset, labels);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static <L> Table<L, String> parse(InputStream csv, char delimiter, Charset charset, Collection<? extends L> labels) {
+        return parse(DecodingReader.of(csv, charset), delimiter, labels);
+    }
+
     public static <L> Table<L, String> parse(Reader in, char delimiter, Collection<? extends L> labels) {
         return CSV.toTable(parseRaw(in, delimiter), labels);
     }
@@ -269,6 +347,18 @@ public final class TSV {
         return parse(new InputStreamReader(csv), '\t', header);
     }
 
+    public static Table<String, String> parse(Path file, Charset charset, boolean header) {
+        try {
+            return parse(Files.newInputStream(file), charset, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static Table<String, String> parse(InputStream csv, Charset charset, boolean header) {
+        return parse(DecodingReader.of(csv, charset), '\t', header);
+    }
+
     public static Table<String, String> parse(Reader in, boolean header) {
         return parse(in, '\t', header);
     }
@@ -306,10 +396,70 @@ public final class TSV {
         return parse(new InputStreamReader(csv), delimiter, header);
     }
 
+    public static Table<String, String> parse(Path file, char delimiter, Charset charset, boolean header) {
+        try {
+            return parse(Files.newInputStream(file), delimiter, charset, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static Table<String, String> parse(InputStream csv, char delimiter, Charset charset, boolean header) {
+        return parse(DecodingReader.of(csv, charset), delimiter, header);
+    }
+
     public static Table<String, String> parse(Reader in, char delimiter, boolean header) {
         return CSV.toTable(parseRaw(in, delimiter), header);
     }
 
+    public static OffHeapTable loadOffHeap(Path file, boolean header) {
+        return loadOffHeap(file, '\t', header);
+    }
+
+    public static OffHeapTable loadOffHeap(Path file, char delimiter, boolean header) {
+        try(Reader in = new InputStreamReader(Files.newInputStream(file))) {
+            return parseOffHeap(in, delimiter, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static OffHeapTable loadOffHeap(Path file, char delimiter, Charset charset, boolean header) {
+        try(Reader in = DecodingReader.of(Files.newInputStream(file), charset)) {
+            return parseOffHeap(in, delimiter, header);
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    public static OffHeapTable parseOffHeap(Reader in, char delimiter, boolean header) {
+        return OffHeapTable.of(new TSVReader(Arguments.checkNull(in, "in"), delimiter, '\\'), header);
+    }
+
+    public static ListStream<List<String>> parseRange(@NotNull Reader in, long skip, long limit) {
+        return parseRange(in, '\t', skip, limit);
+    }
+
+    public static ListStream<List<String>> parseRange(@NotNull Reader in, char delimiter, long skip, long limit) {
+        return CSV.parseRange(in, new CSVFormat(delimiter, null, '\\'), skip, limit);
+    }
+
+    public static List<List<String>> sample(@NotNull Reader in, int k, long seed) {
+        return sample(in, '\t', k, seed);
+    }
+
+    public static List<List<String>> sample(@NotNull Reader in, char delimiter, int k, long seed) {
+        return CSV.sample(in, new CSVFormat(delimiter, null, '\\'), k, seed);
+    }
+
+    public static List<List<String>> sample(Path file, Charset charset, int k, long seed) {
+        return CSV.sample(file, CSVFormat.TSV, charset, k, seed);
+    }
+
+    public static List<List<String>> sampleApproximate(Path file, Charset charset, int k, long seed) {
+        return CSV.sampleApproximate(file, CSVFormat.TSV, charset, k, seed);
+    }
+
     public static ListStream<List<String>> parseRaw(@NotNull Reader in) {
         return parseRaw(in, '\t');
     }
@@ -319,6 +469,12 @@ public final class TSV {
     }
 
     public static ListStream<List<String>> parseFormat(@NotNull Reader in, char delimiter, @Nullable Character quotes, @Nullable Character backslash) {
-        return CSV.parseFormat(in, delimiter, quotes, backslash);
+        if(quotes != null)
+            return CSV.parseFormat(in, delimiter, quotes, backslash);
+        return ListStream.of(new TSVReader(
+                Arguments.checkNull(in, "in"),
+                delimiter,
+                backslash != null ? backslash : -2
+        ));
     }
 }
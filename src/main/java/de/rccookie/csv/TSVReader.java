@@ -0,0 +1,136 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.rccookie.util.Utils;
+
+/**
+ * Record iterator for formats without quotes, like TSV. Fields are located by scanning a
+ * char buffer for the delimiter and line breaks, and are copied out of the buffer in bulk.
+ * As with {@link CSV#parseFormat(Reader, char, Character, Character)}, escape sequences
+ * are only processed within quotes, so without quotes all fields are read literally.
+ */
+final class TSVReader extends RecordIterator {
+
+    private final char delimiter;
+
+    private final char[] buffer = new char[8192];
+    private int pos = 0, limit = 0;
+    private boolean eof = false;
+
+    private final StringBuilder str = new StringBuilder();
+
+    /**
+     * Creates a new TSV reader.
+     *
+     * @param in The reader to read from
+     * @param delimiter The field delimiter
+     * @param backslash The escape character, or <code>-2</code> if there is none. Only
+     *                  validated, it has no effect outside of quotes
+     */
+    TSVReader(Reader in, char delimiter, int backslash) {
+        super(in);
+        if(backslash == delimiter)
+            throw new IllegalArgumentException("Backslash cannot be the same character as the delimiter");
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    List<String> read() {
+        try {
+            if(pos == limit && !fill()) {
+                in.close();
+                return null;
+            }
+            List<String> record = new ArrayList<>();
+            while(true) {
+                record.add(readValue());
+                if(pos == limit && !fill())
+                    return record;
+                char c = buffer[pos++];
+                if(c == '\r') {
+                    if((pos != limit || fill()) && buffer[pos] == '\n')
+                        pos++;
+                    return record;
+                }
+                if(c == '\n' || (pos == limit && !fill()))
+                    return record;
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    @Override
+    boolean skip() {
+        try {
+            if(pos == limit && !fill()) {
+                in.close();
+                return false;
+            }
+            // Without quotes, every line break ends a record
+            while(true) {
+                char[] buffer = this.buffer;
+                for(int i=pos, limit=this.limit; i<limit; i++) {
+                    char c = buffer[i];
+                    if(c != '\n' && c != '\r')
+                        continue;
+                    pos = i + 1;
+                    if(c == '\r' && (pos != limit || fill()) && buffer[pos] == '\n')
+                        pos++;
+                    return true;
+                }
+                pos = limit;
+                if(!fill())
+                    return true;
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    private String readValue() throws IOException {
+        char[] buffer = this.buffer;
+        char delimiter = this.delimiter;
+        while(true) {
+            int i = pos, limit = this.limit;
+            while(i < limit && buffer[i] != delimiter && buffer[i] != '\n' && buffer[i] != '\r')
+                i++;
+
+            if(i != limit && str.length() == 0) {
+                String value = new String(buffer, pos, i - pos);
+                pos = i;
+                return value;
+            }
+            str.append(buffer, pos, i - pos);
+            pos = i;
+            if(i != limit || !fill())
+                return takeValue();
+        }
+    }
+
+    private String takeValue() {
+        String value = str.toString();
+        str.setLength(0);
+        return value;
+    }
+
+    private boolean fill() throws IOException {
+        if(eof)
+            return false;
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while(n == 0);
+        if(n < 0) {
+            eof = true;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+
+import de.rccookie.util.Table;
+import de.rccookie.util.Utils;
+
+/**
+ * Writer for TSV formatted text. Values are escaped in a single pass, runs of chars which
+ * need no escaping are appended in bulk. The output is identical to the one of
+ * {@link CSV#write(Table, Appendable, char, int, boolean, boolean, long)} with backslash escapes
+ * and without quotes.
+ */
+final class TSVWriter {
+
+    private TSVWriter() { }
+
+
+    static void write(Table<?,?> table, Appendable out, char delimiter, boolean header, long options) {
+        try {
+            boolean alwaysEnquote = (options & CSV.ALWAYS_ENQUOTE) != 0;
+            String lineSeparator = (options & CSV.ONLY_LINE_FEED) != 0 ? "\n" : "\r\n";
+
+            int width = table.columnCount();
+            boolean rowsAreLabeled = table.rowsAreLabeled();
+
+            if(header && table.columnsAreLabeled()) {
+                if(rowsAreLabeled && width != 0)
+                    out.append(delimiter);
+                writeRow(table.columnLabels(), width, out, delimiter, alwaysEnquote, lineSeparator);
+            }
+            for(Table.Vector<?,?> row : table.rows()) {
+                if(rowsAreLabeled) {
+                    writeValue(row.label(), out, delimiter, alwaysEnquote);
+                    if(width != 0)
+                        out.append(delimiter);
+                }
+                writeRow(row, width, out, delimiter, alwaysEnquote, lineSeparator);
+            }
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    static void writeRow(Iterable<?> row, int width, Appendable out, char delimiter, boolean alwaysEnquote, String lineSeparator) throws IOException {
+        if(width == 0) {
+            out.append(lineSeparator);
+            return;
+        }
+        int i = 0;
+        for(Object value : row) {
+            writeValue(value, out, delimiter, alwaysEnquote);
+            if(++i == width)
+                out.append(lineSeparator);
+            else out.append(delimiter);
+        }
+    }
+
+    static void writeValue(Object value, Appendable out, char delimiter, boolean alwaysEnquote) throws IOException {
+        if(value == null) {
+            if(alwaysEnquote)
+                out.append(delimiter).append(delimiter);
+            return;
+        }
+        String str = String.valueOf(value);
+        int length = str.length();
+        int start = 0;
+        for(int i=0; i<length; i++) {
+            char c = str.charAt(i);
+            if(c != '\r' && c != '\n' && c != '\t' && c != delimiter)
+                continue;
+            out.append(str, start, i);
+            switch(c) {
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    out.append('\\').append(c);
+            }
+            start = i + 1;
+        }
+        if(start == 0)
+            out.append(str);
+        else out.append(str, start, length);
+    }
+}
@@ -0,0 +1,176 @@
+package de.rccookie.csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import de.rccookie.util.Utils;
+
+/**
+ * Streams records from one format into another. Unquoted fields of the input which
+ * contain no character that is special in the output format are copied directly from
+ * the input buffer, all other fields are decoded like
+ * in {@link CSV#parseFormat(Reader, char, Character, Character)} and written like in
+ * {@link CSV#write(de.rccookie.util.Table, Appendable, char, long)}.
+ */
+final class Transcoder {
+
+    private final Reader in;
+    private final Writer out;
+
+    private final char inDelimiter;
+    private final int inQuotes;
+    private final int inBackslash;
+
+    private final char outDelimiter;
+    private final int outQuotes;
+    private final boolean outBackslash;
+    private final boolean alwaysEnquote;
+    private final String lineSeparator;
+
+    private final char[] buffer = new char[8192];
+    private int pos = 0, limit = 0;
+    private final StringBuilder str = new StringBuilder();
+
+
+    Transcoder(Reader in, CSVFormat inFormat, Writer out, CSVFormat outFormat, long options) {
+        if(outFormat.backslash() != null && outFormat.backslash() != '\\')
+            throw new IllegalArgumentException("Only '\\' is supported as backslash for writing");
+        this.in = in;
+        this.out = new BufferedWriter(out, buffer.length);
+        this.inDelimiter = inFormat.delimiter();
+        this.inQuotes = inFormat.quotes() != null ? inFormat.quotes() : -2;
+        this.inBackslash = inFormat.backslash() != null ? inFormat.backslash() : -2;
+        this.outDelimiter = outFormat.delimiter();
+        this.outQuotes = outFormat.quotes() != null ? outFormat.quotes() : -2;
+        this.outBackslash = outFormat.backslash() != null;
+        this.alwaysEnquote = outQuotes >= 0 && (options & CSV.ALWAYS_ENQUOTE) != 0;
+        this.lineSeparator = (options & CSV.ONLY_LINE_FEED) != 0 ? "\n" : "\r\n";
+    }
+
+
+    void run() {
+        try {
+            int c = read();
+            while(c != -1) {
+                // One record
+                while(true) {
+                    c = field(c);
+                    if(c == '\r') {
+                        c = read();
+                        if(c == '\n')
+                            c = read();
+                        break;
+                    }
+                    if(c == '\n') {
+                        c = read();
+                        break;
+                    }
+                    if(c == -1 || (c = read()) == -1)
+                        break;
+                    out.write(outDelimiter);
+                }
+                out.write(lineSeparator);
+            }
+            out.flush();
+            in.close();
+        } catch(IOException e) {
+            throw Utils.rethrow(e);
+        }
+    }
+
+    /**
+     * Transcodes a single field.
+     *
+     * @param c The first char of the field, which has already been read
+     * @return The char terminating the field, or -1
+     */
+    private int field(int c) throws IOException {
+        str.setLength(0);
+        if(c == inQuotes) {
+            while((c = read()) != -1 && (c != inQuotes || (c = read()) == inQuotes)) {
+                if(c == inBackslash) {
+                    c = read();
+                    if(c == -1) {
+                        str.append((char) inBackslash);
+                        break;
+                    }
+                    c = unescape(c);
+                }
+                str.append((char) c);
+            }
+        }
+        else {
+            // The last char read is always still in the buffer
+            int start = pos - 1, i = start;
+            boolean special = false;
+            char[] buffer = this.buffer;
+            for(int limit = this.limit; i < limit; i++) {
+                char x = buffer[i];
+                if(x == inDelimiter || x == '\n' || x == '\r')
+                    break;
+                special |= isSpecial(x);
+            }
+            if(i != limit) {
+                if(special)
+                    str.append(buffer, start, i - start);
+                else {
+                    if(alwaysEnquote)
+                        out.write(outQuotes);
+                    out.write(buffer, start, i - start);
+                    if(alwaysEnquote)
+                        out.write(outQuotes);
+                }
+                pos = i + 1;
+                if(special)
+                    writeValue();
+                return buffer[i];
+            }
+            str.append(buffer, start, i - start);
+            pos = i;
+            c = read();
+        }
+
+        while(c != -1 && c != inDelimiter && c != '\r' && c != '\n') {
+            str.append((char) c);
+            c = read();
+        }
+        writeValue();
+        return c;
+    }
+
+    private int unescape(int c) {
+        switch(c) {
+            case 'r': return '\r';
+            case 'n': return '\n';
+            case 't': return '\t';
+            default:
+                if(c != inDelimiter && c != inQuotes)
+                    str.append((char) inBackslash);
+                return c;
+        }
+    }
+
+    private boolean isSpecial(char c) {
+        return c == outDelimiter || c == outQuotes || c == '\r' || c == '\n' || (outBackslash && c == '\t');
+    }
+
+    private void writeValue() throws IOException {
+        CSV.writeValue(str, out, outDelimiter, outQuotes, outBackslash, alwaysEnquote);
+    }
+
+    private int read() throws IOException {
+        if(pos == limit) {
+            int n;
+            do {
+                n = in.read(buffer, 0, buffer.length);
+            } while(n == 0);
+            if(n < 0)
+                return -1;
+            pos = 0;
+            limit = n;
+        }
+        return buffer[pos++];
+    }
+}
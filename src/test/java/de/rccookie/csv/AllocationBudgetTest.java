@@ -0,0 +1,163 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the heap allocation per value and the throughput of parsing and writing
+ * against fixed budgets. Allocation is measured with
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} over warmed-up
+ * runs, excluding the setup of each run like creating the input. The throughput floor
+ * is far below the expected rates and only catches severe regressions.
+ */
+class AllocationBudgetTest {
+
+    private static final int WIDTH = 8;
+    private static final int RECORDS = 50000;
+    private static final int RUNS = 5;
+
+    /** Skipping only scans for record boundaries and must not allocate anything. */
+    private static final double SKIP_BYTES_PER_RECORD = 0.1;
+    /** Parsing allocates the record list and one string per field. */
+    private static final double READ_BYTES_PER_FIELD = 80;
+    /** Writing appends to the output and must not allocate per value. */
+    private static final double WRITE_BYTES_PER_VALUE = 0.1;
+
+    private static final double MIN_RECORDS_PER_SECOND = 50000;
+
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static String csv;
+    private static String tsv;
+    private static List<List<String>> records;
+
+    @BeforeAll
+    static void setup() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation measurement not available");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocation measurement not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        csv = TestData.workload(new Random(1), ',', true, WIDTH, RECORDS);
+        tsv = TestData.workload(new Random(2), '\t', false, WIDTH, RECORDS);
+        records = CSV.parseRaw(new StringReader(csv));
+    }
+
+
+    @Test
+    void csvSkip() {
+        assertBudget("CSV skip", SKIP_BYTES_PER_RECORD, RECORDS, () -> skipAll(CSVFormat.CSV, csv));
+    }
+
+    @Test
+    void tsvSkip() {
+        assertBudget("TSV skip", SKIP_BYTES_PER_RECORD, RECORDS, () -> skipAll(CSVFormat.TSV, tsv));
+    }
+
+    @Test
+    void csvRead() {
+        assertBudget("CSV read", READ_BYTES_PER_FIELD, RECORDS * WIDTH, () -> readAll(CSVFormat.CSV, csv));
+    }
+
+    @Test
+    void tsvRead() {
+        assertBudget("TSV read", READ_BYTES_PER_FIELD, RECORDS * WIDTH, () -> readAll(CSVFormat.TSV, tsv));
+    }
+
+    @Test
+    void csvWrite() {
+        StringBuilder out = new StringBuilder(csv.length() * 2);
+        assertBudget("CSV write", WRITE_BYTES_PER_VALUE, RECORDS * WIDTH, () -> {
+            out.setLength(0);
+            return allocated(() -> {
+                for(List<String> record : records)
+                    for(String value : record)
+                        CSV.writeValue(value, out, ',', '"', false, false);
+            });
+        });
+    }
+
+    @Test
+    void tsvWrite() {
+        StringBuilder out = new StringBuilder(tsv.length() * 2);
+        assertBudget("TSV write", WRITE_BYTES_PER_VALUE, RECORDS * WIDTH, () -> {
+            out.setLength(0);
+            return allocated(() -> {
+                for(List<String> record : records)
+                    for(String value : record)
+                        TSVWriter.writeValue(value, out, '\t', false);
+            });
+        });
+    }
+
+
+    private static long skipAll(CSVFormat format, String input) throws IOException {
+        RecordIterator iterator = RecordIterator.of(new StringReader(input), format);
+        return allocated(() -> {
+            while(iterator.skip());
+        });
+    }
+
+    private static long readAll(CSVFormat format, String input) throws IOException {
+        Reader in = new StringReader(input);
+        return allocated(() -> {
+            for(List<String> record : TestData.parse(in, format))
+                assertEquals(WIDTH, record.size());
+        });
+    }
+
+    private static long allocated(Section section) throws IOException {
+        long thread = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(thread);
+        section.run();
+        return threads.getThreadAllocatedBytes(thread) - start;
+    }
+
+    private static void assertBudget(String name, double budget, int units, Workload workload) {
+        try {
+            // Warm up, so that the measured runs use compiled code
+            for(int i=0; i<RUNS; i++)
+                workload.run();
+
+            long bytes = Long.MAX_VALUE, nanos = Long.MAX_VALUE;
+            for(int i=0; i<RUNS; i++) {
+                long start = System.nanoTime();
+                bytes = Math.min(bytes, workload.run());
+                nanos = Math.min(nanos, System.nanoTime() - start);
+            }
+            double perUnit = (double) bytes / units;
+            double recordsPerSecond = RECORDS * 1e9 / nanos;
+            assertTrue(perUnit <= budget, name + " allocates " + perUnit + " bytes per unit, budget is " + budget);
+            assertTrue(recordsPerSecond >= MIN_RECORDS_PER_SECOND, name + " runs at " + recordsPerSecond + " records/s, minimum is " + MIN_RECORDS_PER_SECOND);
+        } catch(IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Workload {
+        /**
+         * Runs the workload once.
+         *
+         * @return The number of bytes allocated by the measured part of the workload
+         */
+        long run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Section {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,147 @@
+package de.rccookie.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the optimized readers and the transcoder with the general implementations
+ * they replace, on randomized input.
+ */
+class EquivalenceTest {
+
+    private static final int ITERATIONS = 20000;
+
+    @Test
+    void tsvReaderMatchesCsvReader() {
+        Random random = new Random(1);
+        for(int i=0; i<ITERATIONS; i++) {
+            String input = TestData.randomString(random, TestData.SPECIAL, 40);
+            char delimiter = random.nextBoolean() ? '\t' : ',';
+            int backslash = random.nextBoolean() ? '\\' : -2;
+            List<List<String>> expected = TestData.readAll(new CSVReader(new StringReader(input), delimiter, -2, backslash));
+            RecordIterator records = new TSVReader(new TestData.TrickleReader(new StringReader(input), random), delimiter, backslash);
+            assertEquals(expected, TestData.readAll(records), input);
+        }
+    }
+
+    @Test
+    void skipMatchesRead() {
+        Random random = new Random(2);
+        CSVFormat[] formats = { CSVFormat.CSV, CSVFormat.TSV, new CSVFormat(';', '\'', '\\') };
+        for(int i=0; i<ITERATIONS; i++) {
+            String input = TestData.randomString(random, TestData.SPECIAL, 40);
+            CSVFormat format = formats[random.nextInt(formats.length)];
+            List<List<String>> all = TestData.readAll(RecordIterator.of(new StringReader(input), format));
+            int skip = random.nextInt(all.size() + 1);
+            RecordIterator records = RecordIterator.of(new TestData.TrickleReader(new StringReader(input), random), format);
+            for(int j=0; j<skip; j++)
+                records.skip();
+            assertEquals(all.subList(skip, all.size()), TestData.readAll(records), input);
+        }
+    }
+
+    @Test
+    void decodingReaderMatchesInputStreamReader() throws IOException {
+        Random random = new Random(3);
+        Charset[] charsets = { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII };
+        for(int i=0; i<ITERATIONS; i++) {
+            Charset charset = charsets[random.nextInt(charsets.length)];
+            byte[] bytes = randomBytes(random, charset);
+            String expected = readFully(new InputStreamReader(new ByteArrayInputStream(bytes), charset));
+            String actual = readFully(DecodingReader.of(trickle(bytes, random), charset));
+            assertEquals(expected, actual, charset.toString());
+        }
+    }
+
+    @Test
+    void decodingReaderSkipsByteOrderMark() throws IOException {
+        byte[] bytes = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a', ',', 'b' };
+        assertEquals("a,b", readFully(DecodingReader.of(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void transcoderMatchesParseAndWrite() {
+        Random random = new Random(4);
+        CSVFormat[] formats = { CSVFormat.CSV, CSVFormat.TSV, new CSVFormat(';', '"', '\\'), new CSVFormat('\t', '\'', null) };
+        for(int i=0; i<ITERATIONS; i++) {
+            String input = TestData.randomString(random, TestData.SPECIAL, 40);
+            CSVFormat inFormat = formats[random.nextInt(formats.length)];
+            CSVFormat outFormat = formats[random.nextInt(formats.length)];
+            long options = (random.nextBoolean() ? CSV.ALWAYS_ENQUOTE : 0) | (random.nextBoolean() ? CSV.ONLY_LINE_FEED : 0);
+
+            List<List<String>> records = TestData.readAll(TestData.parse(new StringReader(input), inFormat));
+            // An escape char at the end of an unterminated quoted field makes the parser
+            // append (char) -1, which the transcoder does not reproduce
+            if(records.stream().flatMap(List::stream).anyMatch(v -> v.indexOf('\uFFFF') != -1))
+                continue;
+
+            StringWriter out = new StringWriter();
+            CSV.transcode(new TestData.TrickleReader(new StringReader(input), random), inFormat, out, outFormat, options);
+            assertEquals(write(records, outFormat, options), out.toString(), input);
+        }
+    }
+
+
+    private static String write(List<List<String>> records, CSVFormat format, long options) {
+        int quotes = format.quotes() != null ? format.quotes() : -2;
+        boolean alwaysEnquote = quotes >= 0 && (options & CSV.ALWAYS_ENQUOTE) != 0;
+        String lineSeparator = (options & CSV.ONLY_LINE_FEED) != 0 ? "\n" : "\r\n";
+        StringBuilder str = new StringBuilder();
+        try {
+            for(List<String> record : records) {
+                for(int i=0; i<record.size(); i++) {
+                    if(i != 0)
+                        str.append(format.delimiter());
+                    CSV.writeValue(record.get(i), str, format.delimiter(), quotes, format.backslash() != null, alwaysEnquote);
+                }
+                str.append(lineSeparator);
+            }
+        } catch(IOException e) {
+            throw new AssertionError(e);
+        }
+        return str.toString();
+    }
+
+    private static byte[] randomBytes(Random random, Charset charset) {
+        if(random.nextBoolean()) {
+            // Arbitrary bytes, including malformed sequences
+            byte[] bytes = new byte[random.nextInt(64)];
+            random.nextBytes(bytes);
+            if(bytes.length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF)
+                bytes[0] = 'x';
+            return bytes;
+        }
+        String str = TestData.randomString(random, "abc,\t\r\n\u00E4\u00FC\u20AC\uD83D\uDE00", 64);
+        return str.getBytes(charset);
+    }
+
+    private static InputStream trickle(byte[] bytes, Random random) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + random.nextInt(5)));
+            }
+        };
+    }
+
+    private static String readFully(Reader in) throws IOException {
+        StringBuilder str = new StringBuilder();
+        char[] buffer = new char[37];
+        for(int n; (n = in.read(buffer)) != -1; )
+            str.append(buffer, 0, n);
+        return str.toString();
+    }
+}
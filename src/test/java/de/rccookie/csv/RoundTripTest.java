@@ -0,0 +1,105 @@
+package de.rccookie.csv;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.rccookie.util.RowMajorTable;
+import de.rccookie.util.Table;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes randomized tables and checks that parsing the output yields the same values.
+ */
+class RoundTripTest {
+
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    void csv() {
+        Random random = new Random(1);
+        for(int i=0; i<ITERATIONS; i++) {
+            long options = randomOptions(random);
+            Table<String, String> table = randomTable(random, TestData.SPECIAL);
+            String csv = CSV.toString(table, options);
+            assertEquals(expected(table), CSV.parseRaw(new StringReader(csv)), csv);
+        }
+    }
+
+    @Test
+    void csvWithDelimiter() {
+        Random random = new Random(2);
+        for(int i=0; i<ITERATIONS; i++) {
+            Table<String, String> table = randomTable(random, TestData.SPECIAL);
+            String csv = CSV.toString(table, ';', randomOptions(random));
+            assertEquals(expected(table), CSV.parseRaw(new StringReader(csv), ';'), csv);
+        }
+    }
+
+    @Test
+    void tsv() {
+        // Without quotes, escape sequences are read literally, so only values without
+        // tabs and line breaks can be written and read back
+        String alphabet = TestData.SPECIAL.replaceAll("[\t\r\n]", "");
+        Random random = new Random(3);
+        for(int i=0; i<ITERATIONS; i++) {
+            Table<String, String> table = randomTable(random, alphabet);
+            String tsv = TSV.toString(table, random.nextBoolean() ? TSV.ONLY_LINE_FEED : 0);
+            assertEquals(expected(table), TSV.parseRaw(new StringReader(tsv)), tsv);
+        }
+    }
+
+    @Test
+    void transcodeCsvToTsv() {
+        String alphabet = TestData.SPECIAL.replaceAll("[\t\r\n]", "");
+        Random random = new Random(4);
+        for(int i=0; i<ITERATIONS; i++) {
+            Table<String, String> table = randomTable(random, alphabet);
+            String csv = CSV.toString(table);
+            StringWriter tsv = new StringWriter();
+            CSV.transcode(new StringReader(csv), CSVFormat.CSV, tsv, CSVFormat.TSV);
+            assertEquals(expected(table), TSV.parseRaw(new StringReader(tsv.toString())), tsv.toString());
+        }
+    }
+
+    @Test
+    void offHeap() {
+        Random random = new Random(5);
+        for(int i=0; i<ITERATIONS / 10; i++) {
+            Table<String, String> table = randomTable(random, TestData.SPECIAL);
+            String csv = CSV.toString(table);
+            try(OffHeapTable offHeap = CSV.parseOffHeap(new StringReader(csv), ',', true)) {
+                assertEquals(csv, CSV.toString(offHeap.toTable()));
+            }
+        }
+    }
+
+
+    private static long randomOptions(Random random) {
+        return (random.nextBoolean() ? CSV.ALWAYS_ENQUOTE : 0) | (random.nextBoolean() ? CSV.ONLY_LINE_FEED : 0);
+    }
+
+    private static Table<String, String> randomTable(Random random, String alphabet) {
+        int width = 1 + random.nextInt(5);
+        List<List<String>> data = TestData.randomRecords(random, alphabet, width, 1 + random.nextInt(10));
+        Table<String, String> table = new RowMajorTable<>("", data.get(0));
+        table.addRowsOrdered(data.subList(1, data.size()));
+        return table;
+    }
+
+    private static List<List<String>> expected(Table<String, String> table) {
+        List<List<String>> records = new ArrayList<>();
+        records.add(new ArrayList<>(table.columnLabels()));
+        for(Table.Vector<?, String> row : table.rows()) {
+            List<String> record = new ArrayList<>();
+            for(String value : row)
+                record.add(value);
+            records.add(record);
+        }
+        return records;
+    }
+}
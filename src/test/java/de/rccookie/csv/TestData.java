@@ -0,0 +1,114 @@
+package de.rccookie.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random input generation shared by the tests.
+ */
+final class TestData {
+
+    private TestData() { }
+
+
+    /**
+     * Chars with special meaning in at least one of the formats, plus some plain and
+     * non-ASCII ones.
+     */
+    static final String SPECIAL = "ab ,;\t\"'\\\r\nrnt\u00E4\u20AC";
+
+    static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder str = new StringBuilder(length);
+        for(int i=0; i<length; i++)
+            str.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return str.toString();
+    }
+
+    static List<List<String>> randomRecords(Random random, String alphabet, int width, int count) {
+        List<List<String>> records = new ArrayList<>(count);
+        for(int i=0; i<count; i++) {
+            List<String> record = new ArrayList<>(width);
+            for(int j=0; j<width; j++)
+                record.add(randomString(random, alphabet, 8));
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Generates <code>count</code> records of <code>width</code> fields resembling typical
+     * exports: ids, numbers, short words, and in CSV occasionally a quoted field.
+     */
+    static String workload(Random random, char delimiter, boolean quotes, int width, int count) {
+        StringBuilder str = new StringBuilder();
+        for(int i=0; i<count; i++) {
+            for(int j=0; j<width; j++) {
+                if(j != 0)
+                    str.append(delimiter);
+                switch(j % 4) {
+                    case 0:
+                        str.append(i);
+                        break;
+                    case 1:
+                        str.append(random.nextInt(100000)).append('.').append(random.nextInt(100));
+                        break;
+                    case 2:
+                        str.append(randomString(random, "abcdefghijklmnopqrstuvwxyz", 12));
+                        break;
+                    default:
+                        if(quotes && random.nextInt(8) == 0)
+                            str.append("\"quoted, with \"\"quotes\"\"\"");
+                        else str.append("value").append(random.nextInt(10));
+                }
+            }
+            str.append("\r\n");
+        }
+        return str.toString();
+    }
+
+    /**
+     * Parses the input with the public parser for the given format.
+     */
+    static List<List<String>> parse(Reader in, CSVFormat format) {
+        if(format.quotes() == null)
+            return TSV.parseFormat(in, format.delimiter(), null, format.backslash());
+        return CSV.parseFormat(in, format.delimiter(), format.quotes(), format.backslash());
+    }
+
+    static List<List<String>> readAll(Iterable<? extends List<String>> records) {
+        List<List<String>> all = new ArrayList<>();
+        for(List<String> record : records)
+            all.add(record);
+        return all;
+    }
+
+    /**
+     * A reader which returns at most a few chars per call, to exercise buffer boundaries.
+     */
+    static final class TrickleReader extends Reader {
+
+        private final Reader in;
+        private final Random random;
+
+        TrickleReader(Reader in, Random random) {
+            this.in = in;
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            if(len == 0)
+                return 0;
+            return in.read(buffer, off, Math.min(len, 1 + random.nextInt(7)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}